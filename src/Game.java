@@ -1,4 +1,7 @@
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Scanner;
 
 /**
@@ -10,7 +13,52 @@ public class Game {
 
     static boolean solutionFound = false;
     static int iterationCount = 0;
-    static boolean isPerfectBoard = false;
+
+    // Whether the search prints its progress and the solution it finds, as solveBoard does.
+    static boolean verbose = false;
+
+    // Geometry of the board being solved
+    static Geometry geometry;
+
+    // Hole in which the last peg must end, or -1 if any hole will do.
+    static int target = -1;
+
+    // Boards already searched without finding a solution, as given by boardKey. This is a
+    // direct-mapped table of fixed capacity (a power of two): a new dead board replaces the
+    // board stored in its slot, so the memo never grows during a search. Empty slots hold -1.
+    // The table has one slot per possible board, up to deadBoardsCapacity, and is null when
+    // the board has more than 63 holes (which have no key).
+    static int deadBoardsCapacity = 1 << 20;
+    private static long[] deadBoards;
+
+    // Boards from which the last peg can end in the target hole, as given by boardKey, for every
+    // board of at most endgamePegs pegs. They are found backwards from the target by reverse jumps,
+    // into an open-addressing table of endgameCapacity slots at most (a power of two), filled to
+    // half of its slots. Empty slots hold 0. Without a target, endgamePegs is 0.
+    static int endgameCapacity = 1 << 20;
+    private static long[] endgameBoards;
+    private static long[] endgameOrder;
+    private static int endgamePegs;
+
+    // Geometry and target of the endgame table, which is kept for the next search with the same ones
+    private static Geometry endgameGeometry;
+    private static int endgameTarget = -1;
+
+    // Retrograde analysis which boards are looked up in instead of being searched, if any.
+    static RetrogradeAnalysis analysis = null;
+
+    // Buffers of the search, one per depth: the jumps found at that depth,
+    // the number of moves following each of them, and a simulated board.
+    private static int[][] jumpBuffers;
+    private static int[][] countBuffers;
+    private static boolean[][] scratchBoards;
+
+    // Boards with at least this many rows are searched heuristically,
+    // since an exhaustive search would not finish in a reasonable time.
+    static final int HEURISTIC_MIN_ROWS = 10;
+    static final int HEURISTIC_WIDTH = 64;
+    static final int HEURISTIC_ROLLOUTS = 8;
+    static final long HEURISTIC_TIME_LIMIT_MILLIS = 30_000;
 
     public static int getStartingX(Axis a, Direction d, int destX) {
 
@@ -41,103 +89,169 @@ public class Game {
     }
 
     public static ArrayList<Move> getValidMoves(int y, int x, boolean[][] board) {
+        return getValidMoves(Geometry.of(board), y, x, board);
+    }
 
-        ArrayList<Move> validMoves = new ArrayList<>();
-
-        for (Axis a : Axis.values()) {
-            for (Direction d : Direction.values()) {
+    /**
+     * getValidMoves - Lists the moves ending at the given position, on a board of the given geometry.
+     *
+     * @param g The geometry of the board
+     * @param y The y-coordinate of the destination
+     * @param x The x-coordinate of the destination
+     * @param board The board to find moves on
+     * @return validMoves - The moves which can be taken into the destination.
+     */
+    public static ArrayList<Move> getValidMoves(Geometry g, int y, int x, boolean[][] board) {
 
-                // Get the position of the hypothetical peg starting position
-                int furthestX = getStartingX(a, d, x);
-                int furthestY = getStartingY(a, d, y);
+        ArrayList<Move> validMoves = new ArrayList<>();
+        int hole = g.hole(y, x);
 
-                // Check if this move is legal
-                if (furthestX < 0 || furthestY < 0
-                        || furthestY >= board.length || furthestX >= board[furthestY].length) {
-                    continue;
-                }
+        // The destination must be an empty hole
+        if (hole == -1 || board[y][x]) {
+            return validMoves;
+        }
 
+        for (int j = g.jumpStart[hole]; j < g.jumpStart[hole + 1]; j++) {
 
-                // Check if all the spaces are valid
-                // 1) Destination must be empty
-                // 2) The starting position must have a peg
-                // 3) The position in between 1 & 2 must have a peg
-                int middleX = (x + furthestX)/2;
-                int middleY = (y + furthestY)/2;
+            // The starting position and the position in between must have a peg
+            int from = g.jumpFrom[j];
+            int over = g.jumpOver[j];
 
-                if (board[y][x] || board[furthestY][furthestX] != true || board[middleY][middleX] != true) {
-                    continue;
-                }
-
-                // Now, proceed to add the move to the list of valid moves.
-                validMoves.add(new Move(a, d, x, y));
+            if (board[g.rowOf[from]][g.colOf[from]] && board[g.rowOf[over]][g.colOf[over]]) {
+                validMoves.add(g.toMove(j));
             }
         }
 
-
         return validMoves;
     }
 
     public static ArrayList<Move> getAllMoves(boolean[][] board) {
+        return getAllMoves(Geometry.of(board), board);
+    }
+
+    /**
+     * getAllMoves - Lists every move which can be taken on a board of the given geometry.
+     *
+     * @param g The geometry of the board
+     * @param board The board to find moves on
+     * @return allMoves - The moves, ordered by destination (row by row).
+     */
+    public static ArrayList<Move> getAllMoves(Geometry g, boolean[][] board) {
 
         ArrayList<Move> allMoves = new ArrayList<>();
-        ArrayList<Move> discoveredMoves;
 
-        // Iterate through all possible spaces on the board
-        for (int i = 0; i < board.length; i++) {
-            for (int j = 0; j < board[i].length; j++) {
+        for (Move m : moves(g, board)) {
+            allMoves.add(m);
+        }
 
-                // A spot that is occupied by a peg is TRUE
-                // Meaning that a move cannot be performed at
-                // this space.
-                if (board[i][j]) {
-                    continue;
-                }
+        return allMoves;
+    }
+
+    public static Iterable<Move> moves(boolean[][] board) {
+        return moves(Geometry.of(board), board);
+    }
+
+    /**
+     * moves - Iterates lazily over the moves which can be taken on a board of the given geometry,
+     * in the same order as <code>getAllMoves</code>. Each move is only looked for when it is asked for,
+     * so the board must not change during the iteration.
+     *
+     * @param g The geometry of the board
+     * @param board The board to find moves on
+     * @return The moves of the board.
+     */
+    public static Iterable<Move> moves(Geometry g, boolean[][] board) {
+        return () -> new MoveIterator(g, board);
+    }
 
-                // Discover all valid move options
-                discoveredMoves = getValidMoves(i, j, board);
+    /**
+     * MoveIterator - Walks the jump tables of a geometry, stopping at each jump which can be taken.
+     */
+    private static class MoveIterator implements Iterator<Move> {
+        final Geometry g;
+        final boolean[][] board;
+
+        // Next jump which can be taken, or -1 once there is none
+        int next;
+
+        MoveIterator(Geometry g, boolean[][] board) {
+            this.g = g;
+            this.board = board;
+            this.next = g.nextJump(board, 0);
+        }
 
-                // Add all discovered moves into "allMoves"
-                allMoves.addAll(discoveredMoves);
+        @Override
+        public boolean hasNext() {
+            return next != -1;
+        }
+
+        @Override
+        public Move next() {
+            if (next == -1) {
+                throw new NoSuchElementException();
             }
+
+            Move m = g.toMove(next);
+            next = g.nextJump(board, next + 1);
+
+            return m;
         }
+    }
 
-        return allMoves;
+    public static boolean hasAnyMove(boolean[][] board) {
+        return hasAnyMove(Geometry.of(board), board);
     }
 
     /**
-     * numPegs - A bloated method of <code>numMoves</code>, which counts each spot on the board which has a peg.
-     * @param board - The board to solve
-     * @return count - Maximum number of moves to achieve an optimal solution.
+     * hasAnyMove - Checks if any move can be taken on a board of the given geometry,
+     * stopping at the first one found. This allocates nothing, unlike the overload without a
+     * geometry: <code>Geometry.of</code> compiles a new geometry whenever the board shape changes.
+     *
+     * @param g The geometry of the board
+     * @param board The board to find moves on
+     * @return False if the game is over on this board.
      */
-    private static int numPegs(boolean[][] board) {
+    public static boolean hasAnyMove(Geometry g, boolean[][] board) {
+        return g.nextJump(board, 0) != -1;
+    }
+
+    public static int countMoves(boolean[][] board) {
+        return countMoves(Geometry.of(board), board);
+    }
+
+    /**
+     * countMoves - Counts the moves which can be taken on a board of the given geometry,
+     * without listing them. As with <code>hasAnyMove</code>, only this overload allocates nothing.
+     *
+     * @param g The geometry of the board
+     * @param board The board to find moves on
+     * @return count - The number of moves.
+     */
+    public static int countMoves(Geometry g, boolean[][] board) {
         int count = 0;
 
-        for (int i = 0; i < board.length; i++) {
-            for (int j = 0; j < board[i].length; j++) {
-                count += board[i][j] ? 1 : 0;
-            }
+        for (int j = g.nextJump(board, 0); j != -1; j = g.nextJump(board, j + 1)) {
+            count++;
         }
 
         return count;
     }
 
     /**
-     * numMoves - A simplified method of <code>numPegs</code>, which adds the length of every row
-     * (number of possible x-values on each row), iterating on each row (the y-axis).
-     * This method should be used specifically on "perfect boards".
-     *
-     * @param board The board to solve
-     * @return Maximum number of moves to achieve an optimal solution.
+     * numPegs - Counts each spot on the board which has a peg.
+     * @param board - The board to count pegs on
+     * @return count - The number of pegs on the board.
      */
-    private static int numMoves(boolean[][] board) {
+    static int numPegs(boolean[][] board) {
         int count = 0;
 
         for (int i = 0; i < board.length; i++) {
-            count+=(i+1);
+            for (int j = 0; j < board[i].length; j++) {
+                count += board[i][j] ? 1 : 0;
+            }
         }
 
-        return count-2;
+        return count;
     }
 
     /**
@@ -146,7 +260,7 @@ public class Game {
      * @param board The board to make a move on
      * @param m Individual move to make on the specified board
      */
-    private static void takeMove(boolean[][] board, Move m) {
+    static void takeMove(boolean[][] board, Move m) {
         // Coordinate of selected peg to move
         int x1 = getStartingX(m.axis, m.direction, m.x);
         int y1 = getStartingY(m.axis, m.direction, m.y);
@@ -166,21 +280,7 @@ public class Game {
         board[y3][x3] = true;
     }
 
-    /**
-     * takeMove - Will first take move on the board, then will add the move to the list of moves taken.
-     *
-     * @param board The board to make a move on.
-     * @param m Individual move to make on the specified board
-     * @param movesTaken The list of moves to add the specified move (m) to.
-     */
-    private static void takeMove(boolean[][] board, Move m, ArrayList<Move> movesTaken) {
-        takeMove(board, m);
-
-        // add this move to the list of moves taken.
-        movesTaken.add(m);
-    }
-
-    private static void undoMove(boolean[][] board, Move m) {
+    static void undoMove(boolean[][] board, Move m) {
         // Coordinate of original peg location
         int x1 = getStartingX(m.axis, m.direction, m.x);
         int y1 = getStartingY(m.axis, m.direction, m.y);
@@ -200,68 +300,343 @@ public class Game {
         board[y3][x3] = false;
     }
 
-    private static void undoMove(boolean[][] board, Move m, ArrayList<Move> movesTaken) {
+    /**
+     * solveHelper - Solves the board depth-first, and appends the moves of the solution to the moves
+     * taken so far. This is the entry point of the original solver, which now runs the search of
+     * <code>findSolution</code> on the jump tables of the board.
+     *
+     * @param board The board to solve. If a solution is found, its moves are taken on the board.
+     * @param movesTaken The moves taken so far, to which the solution is appended
+     * @param level The number of moves taken so far (unused, the search starts from the board)
+     * @return movesTaken once it holds a solution, or null if there is no solution from this board.
+     */
+    public static ArrayList<Move> solveHelper(boolean[][] board, ArrayList<Move> movesTaken, int level) {
+
+        ArrayList<Move> moves = findSolution(board);
 
-        undoMove(board, m);
+        if (moves == null) {
+            return null;
+        }
+
+        for (Move m : moves) {
+            takeMove(board, m);
+            movesTaken.add(m);
+        }
 
-        // Remove this move from the list of moves taken
-        movesTaken.remove(m);
+        return movesTaken;
     }
 
-    public static ArrayList<Move> solveHelper(boolean[][] board, ArrayList<Move> movesTaken, int level) {
+    /**
+     * solveHelper - Searches the flattened board depth-first, using the jump tables of <code>geometry</code>.
+     *
+     * @param pegs The board, with one entry per hole of <code>geometry</code>
+     * @param pegsLeft The number of pegs on the board
+     * @param jumpsTaken The jumps taken so far, in its first <code>level</code> entries
+     * @param level The number of jumps taken so far
+     * @return jumpsTaken once it holds a solution, or null if there is no solution from this board.
+     */
+    static int[] solveHelper(boolean[] pegs, int pegsLeft, int[] jumpsTaken, int level) {
+
+        Geometry g = geometry;
 
         // Check iteration counter
-        if (iterationCount++ % 1000000 == 0) {
+        if (iterationCount++ % 1000000 == 0 && verbose) {
             System.out.println("Iteration: " + iterationCount + "\nDepth: " + level);
-            printBoard(board);
+            printBoard(g, g.toBoard(pegs));
         }
 
-        // Base case: check if no more moves can be made.
-        // Base case uses two different algorithms: one is a "shortcut" if the
-        // board is a shape of an equilateral triangle, and the other counts
-        // each individual space occupied by a peg.
-        if ((isPerfectBoard && movesTaken.size() == numMoves(board)) ||
-                (!isPerfectBoard && movesTaken.size() == numPegs(board))) {
-            System.out.println("SOLUTION FOUND:\nFinal Iteration: " + iterationCount);
+        // Base case: check if a single peg is left.
+        if (pegsLeft == 1) {
+
+            // The last peg must also have ended in the target hole, if there is one
+            if (target != -1 && !pegs[target]) {
+                return null;
+            }
+
+            if (verbose) {
+                System.out.println("SOLUTION FOUND:\nFinal Iteration: " + iterationCount);
+            }
+
             solutionFound = true;
-            return movesTaken;
+            return jumpsTaken;
         }
 
-        // Get the list of all possible moves
-        ArrayList<Move> allPossibleMoves;
-        allPossibleMoves = getAllMoves(board);
+        // Prune boards where no peg can reach the target hole anymore, boards with few
+        // enough pegs to be in the endgame table but missing from it, as well as boards
+        // which were already reached by other moves and failed.
+        long key = boardKey(pegs);
+
+        if ((target != -1 && numPegsInClass(g, pegs, g.parityClass[target]) == 0)
+                || (pegsLeft <= endgamePegs && !isEndgameBoard(key)) || isDeadBoard(key)) {
+            return null;
+        }
+
+        // Get the list of all possible jumps
+        int[] jumps = jumpBuffers[level];
+        int count = g.getAllJumps(pegs, jumps);
+
+        // A board without moves (and more than one peg) is lost. The jumps are
+        // listed anyway, so their count is used rather than hasAnyMove, which
+        // would scan the jump tables a second time.
+        if (count == 0) {
+            addDeadBoard(key);
+
+            return null;
+        }
 
-        // Sort allPossibleMoves list
-        //Collections.shuffle(allPossibleMoves);    // Randomize allPossibleMoves list
-        //sortByMaxMoves(board, allPossibleMoves);    // Sort allPossibleMoves list by max order
-        allPossibleMoves = sortByMaxMoves(board, allPossibleMoves);
+        // Sort the jumps by the number of moves following them
+        sortByMaxJumps(pegs, jumps, count, level);
 
-        // From the list of all moves, recursively call
-        // this method by making all possible moves
-        ArrayList<Move> nextMoves;
+        // From the list of all jumps, recursively call
+        // this method by making all possible jumps
+        int[] nextJumps;
 
-        for (Move m : allPossibleMoves) {
-            // Take move
-            takeMove(board, m, movesTaken);
+        for (int i = 0; i < count; i++) {
+            // Take jump
+            g.takeJump(pegs, jumps[i]);
+            jumpsTaken[level] = jumps[i];
 
-            // Find next moves
-            // The nextMoves arraylist can be null, however this is the edge case
-            // where all move choices are exhausted with no further solution.
-            nextMoves = solveHelper(board, movesTaken, level+1);
+            // Find next jumps
+            nextJumps = solveHelper(pegs, pegsLeft - 1, jumpsTaken, level + 1);
 
-            // If the solution was found in the nextMoves list of solutions,
-            // return the list of solutions
-            if (solutionFound)  return nextMoves;
+            // If the solution was found, return it
+            if (solutionFound)  return nextJumps;
 
-            // Undo this move
-            undoMove(board, m, movesTaken);
+            // Undo this jump
+            g.undoJump(pegs, jumps[i]);
         }
 
-        // After exhausting through allPossibleMoves list, there are no other
+        // After exhausting through all jumps, there are no other
         // options to make. In this case, return null.
+        addDeadBoard(key);
+
         return null;
     }
 
+    private static boolean isDeadBoard(long key) {
+        return key != -1 && deadBoards[deadBoardSlot(key)] == key;
+    }
+
+    private static void addDeadBoard(long key) {
+        if (key != -1) {
+            deadBoards[deadBoardSlot(key)] = key;
+        }
+    }
+
+    // Slot of a board in deadBoards: the key itself when the table has a slot for every
+    // possible board, otherwise the bits of the key spread over the table (Fibonacci hashing)
+    private static int deadBoardSlot(long key) {
+        if (key < deadBoards.length) {
+            return (int) key;
+        }
+
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & (deadBoards.length - 1);
+    }
+
+    /**
+     * buildEndgame - Fills the endgame table of the target hole: starting from a single peg in the
+     * target, every jump is reversed on the boards of n pegs to find the boards of n + 1 pegs, until
+     * the table is half full. <code>endgamePegs</code> is then the largest complete number of pegs.
+     * The table of the last search is kept if the geometry and target are the same.
+     *
+     * @param g The geometry of the board
+     * @param target The target hole, or -1 for none
+     */
+    private static void buildEndgame(Geometry g, int target) {
+
+        // Boards of more than 63 holes have no key, so they get no table
+        int slots = target == -1 || g.size > 63 ? 0 : (int) Math.min(endgameCapacity, 1L << Math.min(g.size + 1, 62));
+
+        if (slots < 2) {
+            endgamePegs = 0;
+            endgameGeometry = null;
+            return;
+        }
+
+        if (g == endgameGeometry && target == endgameTarget && endgameBoards.length == slots) {
+            return;
+        }
+
+        endgamePegs = 0;
+        endgameGeometry = g;
+        endgameTarget = target;
+
+        if (endgameBoards == null || endgameBoards.length != slots) {
+            endgameBoards = new long[slots];
+            endgameOrder = new long[slots / 2];
+        } else {
+            Arrays.fill(endgameBoards, 0);
+        }
+
+        // The boards are also listed in the order they are added, so
+        // the boards of each number of pegs follow each other
+        addEndgameBoard(1L << target);
+        endgameOrder[0] = 1L << target;
+        int count = 1;
+
+        for (int n = 1, first = 0, last = 1; n < g.size; n++, first = last, last = count) {
+            endgamePegs = n;
+
+            for (int i = first; i < last; i++) {
+                long board = endgameOrder[i];
+
+                // Reverse the jumps landing on each peg of the board
+                for (long pegs = board; pegs != 0; pegs &= pegs - 1) {
+                    int h = Long.numberOfTrailingZeros(pegs);
+
+                    for (int j = g.jumpStart[h]; j < g.jumpStart[h + 1]; j++) {
+                        long from = 1L << g.jumpFrom[j];
+                        long over = 1L << g.jumpOver[j];
+
+                        if ((board & (from | over)) != 0) {
+                            continue;
+                        }
+
+                        // A level which does not fit is left incomplete, and is not looked up
+                        if (count == endgameOrder.length) {
+                            return;
+                        }
+
+                        long previous = board ^ from ^ over ^ (1L << h);
+
+                        if (addEndgameBoard(previous)) {
+                            endgameOrder[count++] = previous;
+                        }
+                    }
+                }
+            }
+        }
+
+        endgamePegs = g.size;
+    }
+
+    private static boolean isEndgameBoard(long key) {
+        for (int slot = endgameSlot(key); endgameBoards[slot] != 0; slot = (slot + 1) & (endgameBoards.length - 1)) {
+            if (endgameBoards[slot] == key) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    // Adds the board to the endgame table, returning false if it was already there
+    private static boolean addEndgameBoard(long key) {
+        int slot = endgameSlot(key);
+
+        for (; endgameBoards[slot] != 0; slot = (slot + 1) & (endgameBoards.length - 1)) {
+            if (endgameBoards[slot] == key) {
+                return false;
+            }
+        }
+
+        endgameBoards[slot] = key;
+
+        return true;
+    }
+
+    // Slot at which the search for a board starts in the endgame table (Fibonacci hashing)
+    private static int endgameSlot(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & (endgameBoards.length - 1);
+    }
+
+    /**
+     * numEndgamePegs - Gives the number of pegs up to which boards are looked up in the endgame
+     * table of the last search.
+     *
+     * @return The number of pegs, or 0 if there is no table.
+     */
+    static int numEndgamePegs() {
+        return endgamePegs;
+    }
+
+    /**
+     * numDeadBoardSlots - Gives the size of the dead board table of the last search.
+     *
+     * @return The number of slots, or 0 if there is no table.
+     */
+    static int numDeadBoardSlots() {
+        return deadBoards == null ? 0 : deadBoards.length;
+    }
+
+    /**
+     * numDeadBoards - Counts the boards currently held by the dead board table.
+     *
+     * @return count - The number of occupied slots.
+     */
+    static int numDeadBoards() {
+        int count = 0;
+
+        for (long key : deadBoards == null ? new long[0] : deadBoards) {
+            count += key != -1 ? 1 : 0;
+        }
+
+        return count;
+    }
+
+    /**
+     * boardKey - Packs the flattened board into a number, one bit per hole.
+     *
+     * @param pegs The board to pack
+     * @return The packed board, or -1 if the board has more than 63 holes.
+     */
+    private static long boardKey(boolean[] pegs) {
+        if (pegs.length > 63) {
+            return -1;
+        }
+
+        long key = 0;
+
+        for (int h = 0; h < pegs.length; h++) {
+            key |= pegs[h] ? 1L << h : 0;
+        }
+
+        return key;
+    }
+
+    /**
+     * sortByMaxJumps - Sorts the jumps found at the given depth of <code>solveHelper</code>
+     * in the same order as <code>sortByMaxMoves</code>: by decreasing number of moves on a
+     * simulated board, ties being kept in their original order.
+     *
+     * @param pegs The board the jumps are taken on
+     * @param jumps The jumps to sort, in place
+     * @param count The number of jumps
+     * @param level The depth of the search, selecting the buffers to use
+     */
+    private static void sortByMaxJumps(boolean[] pegs, int[] jumps, int count, int level) {
+
+        Geometry g = geometry;
+        int[] numJumps = countBuffers[level];
+
+        // Known bug, kept from sortByMaxMoves: the simulated board is never
+        // reset, so every jump after the first is scored on a board which
+        // still holds the jumps simulated before it. Fixing it changes the
+        // search order (and node counts) of the solver.
+        boolean[] nextJumpBoard = scratchBoards[level];
+        System.arraycopy(pegs, 0, nextJumpBoard, 0, pegs.length);
+
+        for (int i = 0; i < count; i++) {
+            int jump = jumps[i];
+
+            // Simulate taking next jump
+            g.takeJump(nextJumpBoard, jump);
+            int n = g.countJumps(nextJumpBoard);
+
+            // Insert after every jump with at least as many moves
+            int index = 0;
+
+            while (index < i && numJumps[index] >= n) {
+                index++;
+            }
+
+            System.arraycopy(jumps, index, jumps, index + 1, i - index);
+            System.arraycopy(numJumps, index, numJumps, index + 1, i - index);
+            jumps[index] = jump;
+            numJumps[index] = n;
+        }
+    }
+
     /**
      * sortByMaxMoves - Sorts all possible next moves as a max heap,
      * based on the number of possible moves when one move is taken
@@ -281,7 +656,7 @@ public class Game {
 
         // Records the number of moves (i.e., the size of the
         // number of all possible move combinations, resulting
-        // from the call to getAllMoves)
+        // from the call to countMoves)
         int numMoves;
 
         // Iterate through each move in inputted moves list
@@ -292,12 +667,13 @@ public class Game {
 
             // Find out how many moves we can yield after
             // taking next move from the simulated board
-            numMoves = getAllMoves(nextMoveBoard).size();
+            numMoves = countMoves(nextMoveBoard);
 
             // Insert as a max heap
             insertByNumMoves(m, numMoves, sortedMoves, sortedNumMoves);
 
-            // Reset board
+            // Reset board. Known bug: this undoes the move on board rather
+            // than on nextMoveBoard (see sortByMaxJumps), which leaves it unchanged.
             undoMove(board, m);
         }
 
@@ -349,22 +725,49 @@ public class Game {
      * @return
      */
     public static boolean solveBoard(boolean[][] board) {
+        return solveBoard(board, -1, -1);
+    }
+
+    /**
+     * solveBoard - A method to solve the board such that the last peg ends
+     * in the target hole, and print out detailed steps (per move) on how to solve the board
+     * @param board
+     * @param targetY The y-coordinate of the target hole, or -1 for any hole
+     * @param targetX The x-coordinate of the target hole, or -1 for any hole
+     * @return
+     */
+    public static boolean solveBoard(boolean[][] board, int targetY, int targetX) {
+        return solveBoard(Geometry.of(board), board, targetY, targetX);
+    }
+
+    /**
+     * solveBoard - A method to solve a board of the given geometry such that the last peg ends
+     * in the target hole, and print out detailed steps (per move) on how to solve the board
+     * @param g The geometry of the board
+     * @param board
+     * @param targetY The y-coordinate of the target hole, or -1 for any hole
+     * @param targetX The x-coordinate of the target hole, or -1 for any hole
+     * @return
+     */
+    public static boolean solveBoard(Geometry g, boolean[][] board, int targetY, int targetX) {
 
         ArrayList<Move> moves;  // Keep a list of moves taken
         boolean[][] originalBoard = copyBoard(board);  // Keep the original board state if a solution is found.
 
         // Print out the starting board
         System.out.println(" Starting Board:");
-        printBoard(board);
-
-        // Check if the board is "perfect", meaning it takes a shape of an equilateral triangle
-        // As described in the method's JavaDoc, this will select the proper algorithm to execute,
-        // where a perfect board has a theoretically more optimized algorithm.
-        setIsPerfectBoard(board);
+        printBoard(g, board);
 
         // Solve the board (utilizing recursion).
         // Get the list of moves (or null if no solution).
-        moves = solveHelper(board, new ArrayList<>(), 0);
+        // The search prints its progress as well
+        verbose = true;
+
+        try {
+            moves = findSolution(g, board, targetY, targetX);
+        } finally {
+            verbose = false;
+        }
 
         // If the board is unsolveable, there is no solution
         // Return false to indicate this, as well as printing to STDOUT
@@ -376,51 +779,237 @@ public class Game {
         // A solution is found, print out step by step
         // the moves and board states corresponding to
         // the solution
-        int counter = 1;
+        printSolution(g, originalBoard, moves);
 
+        // Return true, indicating a solution has been found
+        return true;
+    }
 
-        System.out.println("Moves:");
-        System.out.println("-----------------");
-        System.out.println("(y, x) -> (y, x)");
-        System.out.println("=================");
-        System.out.println();
+    /**
+     * findSolution - Solves the board without printing anything. The search state
+     * (<code>solutionFound</code> and <code>iterationCount</code>) is reset first, so
+     * <code>iterationCount</code> holds the number of nodes visited by this search afterwards.
+     *
+     * @param board The board to solve. It is left unchanged.
+     * @return The list of moves solving the board, or null if there is no solution.
+     */
+    public static ArrayList<Move> findSolution(boolean[][] board) {
+        return findSolution(board, -1, -1);
+    }
 
-        for (Move m : moves) {
-            System.out.println("Move: " + counter++);
-            System.out.println(m);
-            takeMove(originalBoard, m);
-            printBoard(originalBoard);
+    public static ArrayList<Move> findSolution(boolean[][] board, int targetY, int targetX) {
+        return findSolution(Geometry.of(board), board, targetY, targetX);
+    }
+
+    /**
+     * findSolution - Solves a board of the given geometry such that the last peg ends in the
+     * target hole, without printing anything. Boards whose peg counts rule out the target
+     * are rejected before searching (see <code>isTargetFeasible</code>).
+     *
+     * @param g The geometry of the board
+     * @param board The board to solve. It is left unchanged.
+     * @param targetY The y-coordinate of the target hole, or -1 for any hole
+     * @param targetX The x-coordinate of the target hole, or -1 for any hole
+     * @return The list of moves solving the board, or null if there is no solution.
+     */
+    public static ArrayList<Move> findSolution(Geometry g, boolean[][] board, int targetY, int targetX) {
+
+        if (!g.fits(board)) {
+            throw new IllegalArgumentException("The board does not have the rows of its geometry");
         }
 
-        // Return true, indicating a solution has been found
-        return true;
+        int target = -1;
+
+        if (targetY != -1 || targetX != -1) {
+            target = g.hole(targetY, targetX);
+
+            if (target == -1) {
+                throw new IllegalArgumentException("Target hole (" + targetY + ", " + targetX + ") is not on the board");
+            }
+        }
+
+        solutionFound = false;
+        iterationCount = 0;
+        geometry = g;
+        Game.target = target;
+
+        // Boards classified by the retrograde analysis are looked up, without setting up the search
+        if (target == -1 && analysis != null && analysis.covers(g, board)) {
+            return analysis.solve(board);
+        }
+
+        // The table is only allocated again if its size changed
+        int slots = g.size > 63 ? 0 : (int) Math.min(deadBoardsCapacity, 1L << Math.min(g.size, 62));
+
+        if (slots == 0) {
+            deadBoards = null;
+        } else if (deadBoards == null || deadBoards.length != slots) {
+            deadBoards = new long[slots];
+        }
+
+        if (deadBoards != null) {
+            Arrays.fill(deadBoards, -1);
+        }
+
+        // Flatten the board, so the search runs on the jump tables of the geometry
+        boolean[] pegs = g.toPegs(board);
+        int pegsLeft = 0;
+
+        for (boolean peg : pegs) {
+            pegsLeft += peg ? 1 : 0;
+        }
+
+        if (target != -1 && !isTargetFeasible(g, pegs, target)) {
+            return null;
+        }
+
+        buildEndgame(g, target);
+
+        // One buffer per depth, so the search does not allocate
+        jumpBuffers = new int[pegsLeft + 1][g.jumpTo.length];
+        countBuffers = new int[pegsLeft + 1][g.jumpTo.length];
+        scratchBoards = new boolean[pegsLeft + 1][g.size];
+
+        int[] jumps = solveHelper(pegs, pegsLeft, new int[pegsLeft], 0);
+
+        if (jumps == null) {
+            return null;
+        }
+
+        ArrayList<Move> moves = new ArrayList<>();
+
+        for (int i = 0; i < pegsLeft - 1; i++) {
+            moves.add(g.toMove(jumps[i]));
+        }
+
+        return moves;
     }
 
     /**
-     * setIsPerfectBoard - checks if the board takes the shape of an equilateral triangle.
-     * This determines the algorithm to check the number of moves, where a "perfect board"
-     * has a theoretically faster algorithm.
+     * useAnalysis - Makes <code>findSolution</code> (and so <code>solveBoard</code>) look up the boards
+     * classified by the given retrograde analysis, instead of searching them.
      *
-     * @param board
+     * @param a The analysis to use, or null to search every board again
+     */
+    public static void useAnalysis(RetrogradeAnalysis a) {
+        analysis = a;
+    }
+
+    /**
+     * isTargetFeasible - Checks the invariants which a solution ending in the target hole must respect.
+     * <ul>
+     *     <li>A peg only ever jumps between the holes of its parity class (for a triangular board, the
+     *     positions with the same parity of x and y). Some peg must start in the class of the target.</li>
+     *     <li>Under each coloring of the geometry (for a triangular board, <code>(x + y) % 3</code>), the
+     *     three holes of a move have three different colors, so every move flips the parity of the number
+     *     of pegs on each color. The number of pegs on the color of the target must then differ in parity
+     *     from the (equal) parities of the two others, as it does when a single peg is left in the target hole.</li>
+     * </ul>
+     *
+     * @param g The geometry of the board
+     * @param pegs The flattened board to solve
+     * @param target The target hole
+     * @return False if the board can not be solved with the last peg in the target hole.
      */
-    private static void setIsPerfectBoard(boolean[][] board) {
+    static boolean isTargetFeasible(Geometry g, boolean[] pegs, int target) {
 
-        int prev = -1;
+        if (numPegsInClass(g, pegs, g.parityClass[target]) == 0) {
+            return false;
+        }
 
-        for (boolean[] row : board) {
+        for (int[] color : g.colorings) {
+            int[] pegsByColor = new int[3];
 
-            if (prev != -1 && Math.abs(row.length - prev) != 1) {
-                isPerfectBoard = false;
-                return;
+            for (int h = 0; h < g.size; h++) {
+                pegsByColor[color[h]] += pegs[h] ? 1 : 0;
             }
 
-            prev = row.length;
+            int other1 = (color[target] + 1) % 3;
+            int other2 = (color[target] + 2) % 3;
+
+            if ((pegsByColor[color[target]] + pegsByColor[other1]) % 2 != 1
+                    || (pegsByColor[other1] + pegsByColor[other2]) % 2 != 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * numPegsInClass - Counts the pegs in the given parity class of the geometry,
+     * which are the only pegs that can ever reach a hole of that class.
+     *
+     * @param g The geometry of the board
+     * @param pegs The flattened board to count pegs on
+     * @param parityClass The parity class
+     * @return count - The number of pegs in the class.
+     */
+    private static int numPegsInClass(Geometry g, boolean[] pegs, int parityClass) {
+        int count = 0;
+
+        for (int h = 0; h < pegs.length; h++) {
+            count += pegs[h] && g.parityClass[h] == parityClass ? 1 : 0;
         }
 
-        isPerfectBoard = true;
+        return count;
+    }
+
+    /**
+     * solveBoardHeuristic - A method to search the board with the <code>HeuristicSolver</code>,
+     * for boards which are too large for <code>solveBoard</code>, and print out the best line found.
+     *
+     * @param board The board to solve
+     * @param width The number of board states kept at every depth of the search
+     * @param rollouts The number of random playouts used to score every board state
+     * @param timeLimitMillis The time budget of the search, in milliseconds
+     * @return The number of pegs left on the board by the best line found.
+     */
+    public static int solveBoardHeuristic(boolean[][] board, int width, int rollouts, long timeLimitMillis) {
+        return solveBoardHeuristic(Geometry.of(board), board, width, rollouts, timeLimitMillis);
     }
 
-    private static boolean[][] copyBoard(boolean[][] board) {
+    public static int solveBoardHeuristic(Geometry g, boolean[][] board, int width, int rollouts, long timeLimitMillis) {
+
+        // Print out the starting board
+        System.out.println(" Starting Board:");
+        printBoard(g, board);
+
+        ArrayList<Move> moves = new HeuristicSolver(width, rollouts, timeLimitMillis, 0).solve(g, board);
+        int pegsLeft = numPegs(board) - moves.size();
+
+        System.out.println("BEST LINE FOUND:\nPegs left: " + pegsLeft);
+        printSolution(g, copyBoard(board), moves);
+
+        return pegsLeft;
+    }
+
+    /**
+     * printSolution - Prints the given moves step by step, along with
+     * the board state after each move.
+     *
+     * @param g The geometry of the board
+     * @param board The starting board, which the moves are applied to
+     * @param moves The moves to print
+     */
+    private static void printSolution(Geometry g, boolean[][] board, ArrayList<Move> moves) {
+        int counter = 1;
+
+        System.out.println("Moves:");
+        System.out.println("-----------------");
+        System.out.println("(y, x) -> (y, x)");
+        System.out.println("=================");
+        System.out.println();
+
+        for (Move m : moves) {
+            System.out.println("Move: " + counter++);
+            System.out.println(m);
+            takeMove(board, m);
+            printBoard(g, board);
+        }
+    }
+
+    static boolean[][] copyBoard(boolean[][] board) {
         boolean[][] newBoard = new boolean[board.length][];
 
         for (int i = 0; i < board.length; i++) {
@@ -516,7 +1105,7 @@ public class Game {
             selectedBoard = createBoardFromInput(builder.toString());
 
             // Proceed to solve the board.
-            solveBoard(selectedBoard);
+            solve(selectedBoard);
 
             return;
         }
@@ -525,7 +1114,21 @@ public class Game {
         selectedBoard = megaBoard;
 
         // Proceed to solve the board.
-        solveBoard(selectedBoard);
+        solve(selectedBoard);
+    }
+
+    /**
+     * solve - Solves the board exhaustively, or heuristically if the board
+     * is too large to be solved exhaustively.
+     *
+     * @param board The board to solve
+     */
+    private static void solve(boolean[][] board) {
+        if (board.length >= HEURISTIC_MIN_ROWS) {
+            solveBoardHeuristic(board, HEURISTIC_WIDTH, HEURISTIC_ROLLOUTS, HEURISTIC_TIME_LIMIT_MILLIS);
+        } else {
+            solveBoard(board);
+        }
     }
 
     private static boolean[][] createBoardFromInput(String s) {
@@ -600,6 +1203,17 @@ public class Game {
     }
 
     private static void printBoard(boolean[][] board) {
+        printBoard(Geometry.of(board), board);
+    }
+
+    /**
+     * printBoard - Prints a board of the given geometry. Positions without a hole are left blank,
+     * and the rows of skewed geometries are shifted by half a hole, as on a triangular board.
+     *
+     * @param g The geometry of the board
+     * @param board The board to print
+     */
+    private static void printBoard(Geometry g, boolean[][] board) {
         int magicNum = board.length;
 
         // Construct the boarder which surrounds the game board.
@@ -615,10 +1229,12 @@ public class Game {
 
             line.append("   ");
 
-            line.append(" ".repeat(magicNum - i));
+            if (g.skewed) {
+                line.append(" ".repeat(magicNum - i));
+            }
 
             for (int j = 0; j < board[i].length; j++) {
-                line.append(board[i][j]?"| ":"o ");
+                line.append(g.hole(i, j) == -1 ? "  " : board[i][j]?"| ":"o ");
             }
 
             System.out.println(line);
@@ -644,7 +1260,13 @@ public class Game {
         final String boarderTail = "----";
         StringBuilder dynamicBoarder = new StringBuilder(boarderFront);
 
-        dynamicBoarder.append(boarderUnit.repeat(board[board.length - 1].length));
+        int width = 0;
+
+        for (boolean[] row : board) {
+            width = Math.max(width, row.length);
+        }
+
+        dynamicBoarder.append(boarderUnit.repeat(width));
 
         dynamicBoarder.append(boarderTail);
         return dynamicBoarder;
@@ -0,0 +1,474 @@
+import java.util.Arrays;
+
+/**
+ * Geometry - Describes the shape of a peg board, and compiles it into flat jump tables.
+ * <p>
+ * A shape is described by the holes of a <code>boolean[][]</code> (in the same (y, x) coordinates as
+ * the boards), along with the axes which pegs may jump along. Axes are taken in coordinates, as in
+ * <code>getStartingX</code>/<code>getStartingY</code>: on a square board, <code>DIAGONAL_LEFT</code>
+ * is the vertical axis and <code>DIAGONAL_RIGHT</code> is left out.
+ * <p>
+ * Holes are numbered row by row, and every jump is numbered by its destination hole, then by
+ * axis and direction, so that jumps come out in the same order as <code>Game.getValidMoves</code>.
+ */
+public class Geometry {
+
+    /**
+     * size - The number of holes of the board.
+     */
+    final int size;
+    /**
+     * skewed - Whether the rows are drawn shifted by half a hole, as on a triangular board.
+     */
+    final boolean skewed;
+
+    // Coordinates of each hole, and the hole at each coordinate (or -1)
+    final int[] rowOf;
+    final int[] colOf;
+    final int[][] index;
+
+    // Jump tables: jump j moves the peg at jumpFrom[j], over the peg at
+    // jumpOver[j], into jumpTo[j]. The jumps into hole h are the ones
+    // from jumpStart[h] (inclusive) to jumpStart[h + 1] (exclusive).
+    final int[] jumpFrom;
+    final int[] jumpOver;
+    final int[] jumpTo;
+    final Axis[] jumpAxis;
+    final Direction[] jumpDirection;
+    final int[] jumpStart;
+
+    /**
+     * parityClass - The class of each hole, where a peg can only ever reach the holes of its own class.
+     */
+    final int[] parityClass;
+    /**
+     * colorings - Colorings of the holes with three colors, where the three holes of every jump
+     * have three different colors.
+     */
+    final int[][] colorings;
+
+    // The last geometry compiled by of(), since it is usually asked for the same shape again.
+    private static volatile Geometry lastOf;
+
+    /**
+     * Geometry - Compiles the jump tables of a shape.
+     *
+     * @param shape The holes of the board: <code>shape[y][x]</code> is true if there is a hole at (y, x)
+     * @param skewed Whether the rows are drawn shifted by half a hole
+     * @param axes The axes along which pegs may jump
+     */
+    public Geometry(boolean[][] shape, boolean skewed, Axis... axes) {
+        this.skewed = skewed;
+
+        // Number the holes row by row
+        index = new int[shape.length][];
+        int count = 0;
+
+        for (int i = 0; i < shape.length; i++) {
+            index[i] = new int[shape[i].length];
+
+            for (int j = 0; j < shape[i].length; j++) {
+                index[i][j] = shape[i][j] ? count++ : -1;
+            }
+        }
+
+        size = count;
+        rowOf = new int[size];
+        colOf = new int[size];
+
+        for (int i = 0; i < index.length; i++) {
+            for (int j = 0; j < index[i].length; j++) {
+                if (index[i][j] != -1) {
+                    rowOf[index[i][j]] = i;
+                    colOf[index[i][j]] = j;
+                }
+            }
+        }
+
+        // Enumerate the jumps into every hole. At most 6 jumps end in a hole.
+        int[] from = new int[size * 6];
+        int[] over = new int[size * 6];
+        int[] to = new int[size * 6];
+        Axis[] axis = new Axis[size * 6];
+        Direction[] direction = new Direction[size * 6];
+        jumpStart = new int[size + 1];
+        count = 0;
+
+        for (int h = 0; h < size; h++) {
+            jumpStart[h] = count;
+
+            for (Axis a : Axis.values()) {
+                if (!Arrays.asList(axes).contains(a)) {
+                    continue;
+                }
+
+                for (Direction d : Direction.values()) {
+                    int fromY = Game.getStartingY(a, d, rowOf[h]);
+                    int fromX = Game.getStartingX(a, d, colOf[h]);
+                    int f = hole(fromY, fromX);
+                    int o = hole((fromY + rowOf[h]) / 2, (fromX + colOf[h]) / 2);
+
+                    if (f == -1 || o == -1) {
+                        continue;
+                    }
+
+                    from[count] = f;
+                    over[count] = o;
+                    to[count] = h;
+                    axis[count] = a;
+                    direction[count] = d;
+                    count++;
+                }
+            }
+        }
+
+        jumpStart[size] = count;
+        jumpFrom = Arrays.copyOf(from, count);
+        jumpOver = Arrays.copyOf(over, count);
+        jumpTo = Arrays.copyOf(to, count);
+        jumpAxis = Arrays.copyOf(axis, count);
+        jumpDirection = Arrays.copyOf(direction, count);
+
+        parityClass = computeParityClasses();
+        colorings = computeColorings();
+    }
+
+    /**
+     * triangle - The triangular board with the given number of rows, where row y has y + 1 holes.
+     *
+     * @param rows The number of rows
+     * @return The geometry of the triangular board.
+     */
+    public static Geometry triangle(int rows) {
+        boolean[][] shape = new boolean[rows][];
+
+        for (int i = 0; i < rows; i++) {
+            shape[i] = new boolean[i + 1];
+            Arrays.fill(shape[i], true);
+        }
+
+        return new Geometry(shape, true, Axis.values());
+    }
+
+    /**
+     * hexagon - The hexagonal board with the given number of holes on each side,
+     * laid out on the same lattice as the triangular board.
+     *
+     * @param side The number of holes on each side
+     * @return The geometry of the hexagonal board.
+     */
+    public static Geometry hexagon(int side) {
+        boolean[][] shape = new boolean[2 * side - 1][];
+
+        for (int i = 0; i < shape.length; i++) {
+            shape[i] = new boolean[Math.min(2 * side - 2, i + side - 1) + 1];
+
+            for (int j = Math.max(0, i - side + 1); j < shape[i].length; j++) {
+                shape[i][j] = true;
+            }
+        }
+
+        return new Geometry(shape, true, Axis.values());
+    }
+
+    /**
+     * englishCross - The English board: a 7 by 7 square without its 2 by 2 corners,
+     * where pegs jump horizontally and vertically.
+     *
+     * @return The geometry of the English board.
+     */
+    public static Geometry englishCross() {
+        boolean[][] shape = new boolean[7][7];
+
+        for (int i = 0; i < 7; i++) {
+            for (int j = 0; j < 7; j++) {
+                shape[i][j] = (i >= 2 && i <= 4) || (j >= 2 && j <= 4);
+            }
+        }
+
+        return new Geometry(shape, false, Axis.DIAGONAL_LEFT, Axis.HORIZONTAL);
+    }
+
+    /**
+     * of - The triangular-lattice geometry taking the shape of the given board, where every
+     * position of every row is a hole. For a triangular board, this is <code>triangle(board.length)</code>.
+     *
+     * @param board The board to take the shape of
+     * @return The geometry of the board.
+     */
+    public static Geometry of(boolean[][] board) {
+        Geometry g = lastOf;
+
+        if (g != null && g.fits(board)) {
+            return g;
+        }
+
+        boolean[][] shape = new boolean[board.length][];
+
+        for (int i = 0; i < board.length; i++) {
+            shape[i] = new boolean[board[i].length];
+            Arrays.fill(shape[i], true);
+        }
+
+        g = new Geometry(shape, true, Axis.values());
+        lastOf = g;
+
+        return g;
+    }
+
+    /**
+     * fits - Checks if the board has the same rows as this geometry.
+     *
+     * @param board The board to check
+     * @return True if the board can be used with this geometry.
+     */
+    public boolean fits(boolean[][] board) {
+        if (board.length != index.length) {
+            return false;
+        }
+
+        for (int i = 0; i < board.length; i++) {
+            if (board[i].length != index[i].length) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * hole - The hole at the given position.
+     *
+     * @param y The y-coordinate of the position
+     * @param x The x-coordinate of the position
+     * @return The number of the hole, or -1 if there is no hole at this position.
+     */
+    public int hole(int y, int x) {
+        if (y < 0 || x < 0 || y >= index.length || x >= index[y].length) {
+            return -1;
+        }
+
+        return index[y][x];
+    }
+
+    /**
+     * fullBoard - A board where every hole holds a peg, except for the given one.
+     *
+     * @param emptyY The y-coordinate of the empty hole
+     * @param emptyX The x-coordinate of the empty hole
+     * @return The board.
+     */
+    public boolean[][] fullBoard(int emptyY, int emptyX) {
+        boolean[] pegs = new boolean[size];
+        Arrays.fill(pegs, true);
+        pegs[index[emptyY][emptyX]] = false;
+
+        return toBoard(pegs);
+    }
+
+    /**
+     * toPegs - Flattens the board into one entry per hole.
+     *
+     * @param board The board to flatten
+     * @return pegs - Whether each hole holds a peg.
+     */
+    public boolean[] toPegs(boolean[][] board) {
+        boolean[] pegs = new boolean[size];
+
+        for (int h = 0; h < size; h++) {
+            pegs[h] = board[rowOf[h]][colOf[h]];
+        }
+
+        return pegs;
+    }
+
+    /**
+     * toBoard - The inverse of <code>toPegs</code>. Positions without a hole are left false.
+     *
+     * @param pegs Whether each hole holds a peg
+     * @return The board.
+     */
+    public boolean[][] toBoard(boolean[] pegs) {
+        boolean[][] board = new boolean[index.length][];
+
+        for (int i = 0; i < index.length; i++) {
+            board[i] = new boolean[index[i].length];
+        }
+
+        for (int h = 0; h < size; h++) {
+            board[rowOf[h]][colOf[h]] = pegs[h];
+        }
+
+        return board;
+    }
+
+    /**
+     * toMove - The move taking the given jump.
+     *
+     * @param jump The jump to take
+     * @return The move.
+     */
+    public Move toMove(int jump) {
+        return new Move(jumpAxis[jump], jumpDirection[jump], colOf[jumpTo[jump]], rowOf[jumpTo[jump]]);
+    }
+
+    /**
+     * nextJump - Finds the first jump, from the given one onwards, which can be taken on the board.
+     * This works on the unflattened board, so it allocates nothing.
+     *
+     * @param board The board
+     * @param jump The jump to start looking from
+     * @return The jump found, or -1 if there is none.
+     */
+    int nextJump(boolean[][] board, int jump) {
+        while (jump < jumpTo.length) {
+            int to = jumpTo[jump];
+
+            // Skip every jump into a hole which holds a peg
+            if (board[rowOf[to]][colOf[to]]) {
+                jump = jumpStart[to + 1];
+                continue;
+            }
+
+            int from = jumpFrom[jump];
+            int over = jumpOver[jump];
+
+            if (board[rowOf[from]][colOf[from]] && board[rowOf[over]][colOf[over]]) {
+                return jump;
+            }
+
+            jump++;
+        }
+
+        return -1;
+    }
+
+    /**
+     * getAllJumps - Writes all jumps which can be taken on the board, in order, into <code>jumps</code>.
+     *
+     * @param pegs The board
+     * @param jumps The array to write the jumps into, of at least <code>jumpTo.length</code> entries
+     * @return count - The number of jumps written.
+     */
+    int getAllJumps(boolean[] pegs, int[] jumps) {
+        int count = 0;
+
+        for (int h = 0; h < size; h++) {
+            if (pegs[h]) {
+                continue;
+            }
+
+            for (int j = jumpStart[h]; j < jumpStart[h + 1]; j++) {
+                if (pegs[jumpFrom[j]] && pegs[jumpOver[j]]) {
+                    jumps[count++] = j;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * countJumps - Counts the jumps which can be taken on the board, without listing them.
+     *
+     * @param pegs The board
+     * @return count - The number of jumps.
+     */
+    int countJumps(boolean[] pegs) {
+        int count = 0;
+
+        for (int h = 0; h < size; h++) {
+            if (pegs[h]) {
+                continue;
+            }
+
+            for (int j = jumpStart[h]; j < jumpStart[h + 1]; j++) {
+                count += pegs[jumpFrom[j]] && pegs[jumpOver[j]] ? 1 : 0;
+            }
+        }
+
+        return count;
+    }
+
+    void takeJump(boolean[] pegs, int jump) {
+        pegs[jumpFrom[jump]] = false;
+        pegs[jumpOver[jump]] = false;
+        pegs[jumpTo[jump]] = true;
+    }
+
+    void undoJump(boolean[] pegs, int jump) {
+        pegs[jumpFrom[jump]] = true;
+        pegs[jumpOver[jump]] = true;
+        pegs[jumpTo[jump]] = false;
+    }
+
+    /**
+     * computeParityClasses - Groups the holes which are connected by jumps,
+     * since a peg only ever moves from one hole to another by jumping.
+     *
+     * @return The class of each hole, named by its lowest hole.
+     */
+    private int[] computeParityClasses() {
+        int[] parent = new int[size];
+
+        for (int h = 0; h < size; h++) {
+            parent[h] = h;
+        }
+
+        for (int j = 0; j < jumpTo.length; j++) {
+            int a = root(parent, jumpFrom[j]);
+            int b = root(parent, jumpTo[j]);
+            parent[Math.max(a, b)] = Math.min(a, b);
+        }
+
+        for (int h = 0; h < size; h++) {
+            parent[h] = root(parent, h);
+        }
+
+        return parent;
+    }
+
+    private static int root(int[] parent, int h) {
+        while (parent[h] != h) {
+            h = parent[h];
+        }
+
+        return h;
+    }
+
+    /**
+     * computeColorings - Finds the colorings <code>(a * y + b * x) % 3</code> under which
+     * the three holes of every jump have three different colors.
+     *
+     * @return The color of each hole, for each such coloring.
+     */
+    private int[][] computeColorings() {
+        // The other choices of (a, b) give the same colorings, with the colors renamed
+        final int[][] coefficients = {{1, 0}, {0, 1}, {1, 1}, {1, 2}};
+
+        int[][] found = new int[coefficients.length][];
+        int count = 0;
+
+        for (int[] c : coefficients) {
+            int[] color = new int[size];
+
+            for (int h = 0; h < size; h++) {
+                color[h] = (c[0] * rowOf[h] + c[1] * colOf[h]) % 3;
+            }
+
+            boolean valid = true;
+
+            for (int j = 0; j < jumpTo.length && valid; j++) {
+                valid = color[jumpFrom[j]] != color[jumpOver[j]]
+                        && color[jumpOver[j]] != color[jumpTo[j]]
+                        && color[jumpTo[j]] != color[jumpFrom[j]];
+            }
+
+            if (valid) {
+                found[count++] = color;
+            }
+        }
+
+        return Arrays.copyOf(found, count);
+    }
+}
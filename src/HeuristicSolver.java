@@ -0,0 +1,239 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * HeuristicSolver - A beam search over the jump tables of a <code>Geometry</code>, guided by random
+ * rollouts, for boards which are too large to be solved exhaustively by <code>Game.solveHelper</code>.
+ * The search does not guarantee an optimal solution, but always returns the line of moves
+ * leaving the fewest pegs that it has seen before running out of time.
+ */
+public class HeuristicSolver {
+
+    /**
+     * width - The number of board states kept at every depth of the beam.
+     */
+    final int width;
+    /**
+     * rollouts - The number of random playouts used to score every candidate board state.
+     */
+    final int rollouts;
+    /**
+     * timeLimitMillis - The wall time budget of a single solve, in milliseconds.
+     */
+    final long timeLimitMillis;
+    /**
+     * seed - The seed of the random playouts. Equal seeds yield equal lines as long as the time limit
+     * is not reached: once it is, the line depends on how far the search got in wall time.
+     */
+    final long seed;
+
+    public HeuristicSolver(int width, int rollouts, long timeLimitMillis, long seed) {
+        if (width < 1 || rollouts < 0 || timeLimitMillis < 0) {
+            throw new IllegalArgumentException("width must be positive, rollouts and timeLimitMillis non-negative");
+        }
+
+        this.width = width;
+        this.rollouts = rollouts;
+        this.timeLimitMillis = timeLimitMillis;
+        this.seed = seed;
+    }
+
+    /**
+     * State - A flattened board reached by the beam, along with the line of jumps leading to it.
+     */
+    private static class State {
+        boolean[] pegs;
+        int[] line;
+
+        // Score of this state: lowest and summed peg count over its rollouts,
+        // as well as the number of moves available from this state.
+        int bestPegs;
+        int totalPegs;
+        int mobility;
+
+        // Best complete line found by the rollouts of this state
+        int[] bestLine;
+
+        State(boolean[] pegs, int[] line) {
+            this.pegs = pegs;
+            this.line = line;
+        }
+    }
+
+    /**
+     * solve - Searches for the line of moves which leaves the fewest pegs on the board.
+     *
+     * @param board The board to solve. It is left unchanged.
+     * @return The best line of moves found, which is empty if no move can be made.
+     */
+    public ArrayList<Move> solve(boolean[][] board) {
+        return solve(Geometry.of(board), board);
+    }
+
+    /**
+     * solve - Searches for the line of moves which leaves the fewest pegs on a board of the given geometry.
+     *
+     * @param g The geometry of the board
+     * @param board The board to solve. It is left unchanged.
+     * @return The best line of moves found, which is empty if no move can be made.
+     */
+    public ArrayList<Move> solve(Geometry g, boolean[][] board) {
+
+        final long deadline = System.nanoTime() + timeLimitMillis * 1_000_000L;
+        final int[] jumps = new int[g.jumpTo.length];
+
+        // Best line found so far, and the number of pegs it leaves behind
+        int[] bestLine = new int[0];
+        int bestPegs = Game.numPegs(board);
+
+        List<State> beam = new ArrayList<>();
+        beam.add(new State(g.toPegs(board), new int[0]));
+
+        for (int depth = 0; !beam.isEmpty() && bestPegs > 1 && System.nanoTime() < deadline; depth++) {
+
+            // Expand every state of the beam by every legal move, skipping
+            // boards which were already reached through another line.
+            ArrayList<State> children = new ArrayList<>();
+            HashSet<BitSet> seen = new HashSet<>();
+
+            for (State s : beam) {
+                int count = g.getAllJumps(s.pegs, jumps);
+
+                for (int i = 0; i < count; i++) {
+                    boolean[] child = s.pegs.clone();
+                    g.takeJump(child, jumps[i]);
+
+                    if (!seen.add(boardKey(child))) {
+                        continue;
+                    }
+
+                    int[] line = Arrays.copyOf(s.line, s.line.length + 1);
+                    line[s.line.length] = jumps[i];
+                    children.add(new State(child, line));
+                }
+            }
+
+            // Score all children in parallel. Each child has its own random
+            // stream, so the outcome does not depend on thread scheduling.
+            final int level = depth;
+            IntStream.range(0, children.size()).parallel()
+                    .forEach(i -> score(g, children.get(i), new SplittableRandom(seed ^ ((long) level << 32) ^ i), deadline));
+
+            // Keep track of the best line (children are visited in order,
+            // so ties are broken the same way on every run)
+            for (State c : children) {
+                if (c.bestPegs < bestPegs) {
+                    bestPegs = c.bestPegs;
+                    bestLine = c.bestLine;
+                }
+            }
+
+            // Keep the most promising children for the next depth
+            children.sort((a, b) -> {
+                if (a.bestPegs != b.bestPegs) return Integer.compare(a.bestPegs, b.bestPegs);
+                if (a.totalPegs != b.totalPegs) return Integer.compare(a.totalPegs, b.totalPegs);
+                return Integer.compare(b.mobility, a.mobility);
+            });
+
+            beam = children.subList(0, Math.min(width, children.size()));
+        }
+
+        ArrayList<Move> moves = new ArrayList<>();
+
+        for (int jump : bestLine) {
+            moves.add(g.toMove(jump));
+        }
+
+        return moves;
+    }
+
+    /**
+     * score - Plays <code>rollouts</code> random games from the given state and records
+     * the lowest and summed number of pegs left at their ends.
+     *
+     * @param g The geometry of the board
+     * @param s The state to score
+     * @param random The random stream used for the playouts
+     * @param deadline The value of <code>System.nanoTime()</code> after which playouts are no longer started
+     */
+    private void score(Geometry g, State s, SplittableRandom random, long deadline) {
+
+        int pegs = 0;
+
+        for (boolean peg : s.pegs) {
+            pegs += peg ? 1 : 0;
+        }
+
+        int count = g.countJumps(s.pegs);
+
+        s.mobility = count;
+        s.bestPegs = pegs;
+        s.totalPegs = 0;
+        s.bestLine = s.line;
+
+        // A state without moves is its own (only) playout
+        if (count == 0) {
+            s.totalPegs = pegs * rollouts;
+            return;
+        }
+
+        boolean[] board = s.pegs.clone();
+        int[] jumps = new int[g.jumpTo.length];
+        int[] played = new int[pegs];
+
+        for (int r = 0; r < rollouts; r++) {
+
+            // Unstarted rollouts count as if they made no progress
+            if (System.nanoTime() >= deadline) {
+                s.totalPegs += pegs * (rollouts - r);
+                return;
+            }
+
+            int numPlayed = 0;
+            int next = g.getAllJumps(board, jumps);
+
+            while (next > 0) {
+                int jump = jumps[random.nextInt(next)];
+                g.takeJump(board, jump);
+                played[numPlayed++] = jump;
+                next = g.getAllJumps(board, jumps);
+            }
+
+            int left = pegs - numPlayed;
+            s.totalPegs += left;
+
+            if (left < s.bestPegs) {
+                s.bestPegs = left;
+                s.bestLine = Arrays.copyOf(s.line, s.line.length + numPlayed);
+                System.arraycopy(played, 0, s.bestLine, s.line.length, numPlayed);
+            }
+
+            // Restore the board for the next rollout
+            for (int i = numPlayed - 1; i >= 0; i--) {
+                g.undoJump(board, played[i]);
+            }
+        }
+    }
+
+    /**
+     * boardKey - Packs the flattened board into a set of occupied holes, used to detect
+     * boards which are reached through more than one line.
+     *
+     * @param pegs The board to pack
+     * @return The holes holding a peg.
+     */
+    private static BitSet boardKey(boolean[] pegs) {
+        BitSet key = new BitSet(pegs.length);
+
+        for (int h = 0; h < pegs.length; h++) {
+            if (pegs[h]) key.set(h);
+        }
+
+        return key;
+    }
+}
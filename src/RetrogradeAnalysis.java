@@ -0,0 +1,311 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * RetrogradeAnalysis - Classifies every position reachable from every single-hole start of a geometry
+ * as won (a single peg can be left) or lost, so that solving any of these positions becomes a lookup.
+ * <p>
+ * A position is packed into a number, one bit per hole (as in <code>Game.boardKey</code>), which indexes
+ * two bitmaps: the reachable positions and the won positions. Reachable positions are first found level by
+ * level, from the most pegs down to a single peg, then classified level by level, from a single peg up.
+ * The positions of a level are read back from the reachable bitmap, so the two bitmaps are the only large
+ * allocations. Each level is processed in parallel across all cores.
+ */
+public class RetrogradeAnalysis {
+
+    /**
+     * MAX_HOLES - The largest geometry analysed. Each bitmap takes <code>2^MAX_HOLES</code> bits (32 MiB),
+     * and positions fit in an <code>int</code>.
+     */
+    static final int MAX_HOLES = 28;
+
+    // Number of chunks each level is split into, so that threads get an even share
+    private static final int CHUNKS_PER_THREAD = 8;
+
+    // LEVEL_MASKS[k] - The bits b of a bitmap word with k bits set in b itself. Position
+    // (i << 6 | b) of word i holds k pegs more than i, so masking a word selects one level.
+    private static final long[] LEVEL_MASKS = new long[7];
+
+    static {
+        for (int b = 0; b < 64; b++) {
+            LEVEL_MASKS[Integer.bitCount(b)] |= 1L << b;
+        }
+    }
+
+    final Geometry geometry;
+
+    // Jump tables in packed form: jump j can be taken on position p if
+    // (p & jumpPegs[j]) == jumpPegs[j] and (p & jumpHole[j]) == 0,
+    // which leads to the position p ^ jumpPegs[j] ^ jumpHole[j].
+    private final int[] jumpPegs;
+    private final int[] jumpHole;
+
+    // Bitmaps indexed by position
+    private final AtomicLongArray reachable;
+    private final AtomicLongArray won;
+
+    // Number of reachable and won positions with n pegs, at index n
+    private final int[] reachableCounts;
+    private final int[] wonCounts;
+
+    /**
+     * RetrogradeAnalysis - Runs the analysis of the geometry.
+     *
+     * @param g The geometry to analyse, of at most <code>MAX_HOLES</code> holes
+     */
+    public RetrogradeAnalysis(Geometry g) {
+
+        if (g.size > MAX_HOLES) {
+            throw new IllegalArgumentException("Geometries of more than " + MAX_HOLES + " holes can not be analysed");
+        }
+
+        geometry = g;
+        jumpPegs = new int[g.jumpTo.length];
+        jumpHole = new int[g.jumpTo.length];
+
+        for (int j = 0; j < g.jumpTo.length; j++) {
+            jumpPegs[j] = (1 << g.jumpFrom[j]) | (1 << g.jumpOver[j]);
+            jumpHole[j] = 1 << g.jumpTo[j];
+        }
+
+        int words = Math.max(1, (1 << g.size) >>> 6);
+        reachable = new AtomicLongArray(words);
+        won = new AtomicLongArray(words);
+        reachableCounts = new int[g.size + 1];
+        wonCounts = new int[g.size + 1];
+
+        // The single-hole starts
+        int full = (1 << g.size) - 1;
+
+        for (int h = 0; h < g.size; h++) {
+            set(reachable, full ^ (1 << h));
+        }
+
+        if (g.size > 1) {
+            reachableCounts[g.size - 1] = g.size;
+        }
+
+        // Forward sweep: every jump removes a peg, so the positions of
+        // each level are only reached from the level above.
+        for (int n = g.size - 1; n > 1; n--) {
+            reachableCounts[n - 1] = sweep(n, this::expand);
+        }
+
+        // Backward sweep: a single peg is won, and any other position
+        // is won if one of its jumps leads to a won position.
+        for (int n = 1; n < g.size; n++) {
+            final boolean lastPeg = n == 1;
+            wonCounts[n] = sweep(n, p -> classify(p, lastPeg));
+        }
+    }
+
+    /**
+     * triangle - Runs the analysis of the triangular board with the given number of rows.
+     *
+     * @param rows The number of rows
+     * @return The analysis.
+     */
+    public static RetrogradeAnalysis triangle(int rows) {
+        return new RetrogradeAnalysis(Geometry.triangle(rows));
+    }
+
+    /**
+     * sweep - Visits every reachable position with the given number of pegs, read from the reachable
+     * bitmap, in parallel across all cores. Positions of other levels may be set during the sweep.
+     *
+     * @param pegs The number of pegs of the level
+     * @param visit Visits one position, returning the amount it contributes to the sum
+     * @return The sum of the visits.
+     */
+    private int sweep(int pegs, IntUnaryOperator visit) {
+
+        int words = reachable.length();
+        int chunks = chunks(words);
+
+        return IntStream.range(0, chunks).parallel().map(c -> {
+            int sum = 0;
+
+            for (int i = start(words, chunks, c); i < start(words, chunks, c + 1); i++) {
+
+                // The positions of a word share their upper bits (i), so the
+                // level only depends on the number of pegs in the lower six
+                int low = pegs - Integer.bitCount(i);
+
+                if (low < 0 || low >= LEVEL_MASKS.length) {
+                    continue;
+                }
+
+                for (long w = reachable.get(i) & LEVEL_MASKS[low]; w != 0; w &= w - 1) {
+                    sum += visit.applyAsInt(i << 6 | Long.numberOfTrailingZeros(w));
+                }
+            }
+
+            return sum;
+        }).sum();
+    }
+
+    /**
+     * expand - Marks the positions reached by one jump from the given position as reachable.
+     *
+     * @param p The position
+     * @return The number of positions reached for the first time.
+     */
+    private int expand(int p) {
+        int count = 0;
+
+        for (int j = 0; j < jumpPegs.length; j++) {
+            if ((p & jumpPegs[j]) == jumpPegs[j] && (p & jumpHole[j]) == 0 && set(reachable, p ^ jumpPegs[j] ^ jumpHole[j])) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * classify - Marks the position as won if it holds a single peg, or if one of its jumps
+     * leads to a won position. Every level below the position must be classified.
+     *
+     * @param p The position
+     * @param lastPeg Whether the position holds a single peg
+     * @return 1 if the position is won, 0 otherwise.
+     */
+    private int classify(int p, boolean lastPeg) {
+        if (lastPeg || nextWonJump(p) != -1) {
+            set(won, p);
+            return 1;
+        }
+
+        return 0;
+    }
+
+    /**
+     * nextWonJump - Finds the first jump (in the order of the geometry) leading to a won position.
+     *
+     * @param p The position
+     * @return The jump, or -1 if the position is lost.
+     */
+    private int nextWonJump(int p) {
+        for (int j = 0; j < jumpPegs.length; j++) {
+            if ((p & jumpPegs[j]) == jumpPegs[j] && (p & jumpHole[j]) == 0 && get(won, p ^ jumpPegs[j] ^ jumpHole[j])) {
+                return j;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * isClassified - Checks if the board is one of the positions reachable from a single-hole start.
+     *
+     * @param board The board, of the shape of the geometry
+     * @return True if the board was classified by this analysis.
+     */
+    public boolean isClassified(boolean[][] board) {
+        return geometry.fits(board) && get(reachable, key(board));
+    }
+
+    /**
+     * covers - Checks if the board, of the given geometry, was classified by this analysis.
+     *
+     * @param g The geometry of the board
+     * @param board The board
+     * @return True if the board can be looked up.
+     */
+    public boolean covers(Geometry g, boolean[][] board) {
+        return (g == geometry || (Arrays.equals(g.jumpFrom, geometry.jumpFrom)
+                && Arrays.equals(g.jumpOver, geometry.jumpOver) && Arrays.equals(g.jumpTo, geometry.jumpTo)
+                && Arrays.deepEquals(g.index, geometry.index))) && isClassified(board);
+    }
+
+    /**
+     * isWon - Checks if a single peg can be left on the board.
+     *
+     * @param board The board, which must be classified by this analysis
+     * @return True if the board can be solved.
+     */
+    public boolean isWon(boolean[][] board) {
+        if (!isClassified(board)) {
+            throw new IllegalArgumentException("The board was not classified by this analysis");
+        }
+
+        return get(won, key(board));
+    }
+
+    /**
+     * solve - Looks up a solution of the board, one won position after the other.
+     *
+     * @param board The board, which must be classified by this analysis
+     * @return The list of moves solving the board, or null if there is no solution.
+     */
+    public ArrayList<Move> solve(boolean[][] board) {
+        if (!isWon(board)) {
+            return null;
+        }
+
+        ArrayList<Move> moves = new ArrayList<>();
+
+        for (int p = key(board); Integer.bitCount(p) > 1; ) {
+            int j = nextWonJump(p);
+            moves.add(geometry.toMove(j));
+            p ^= jumpPegs[j] ^ jumpHole[j];
+        }
+
+        return moves;
+    }
+
+    /**
+     * numReachable - Counts the reachable positions with the given number of pegs.
+     */
+    public int numReachable(int pegs) {
+        return pegs >= 0 && pegs < reachableCounts.length ? reachableCounts[pegs] : 0;
+    }
+
+    /**
+     * numWon - Counts the won positions with the given number of pegs.
+     */
+    public int numWon(int pegs) {
+        return pegs >= 0 && pegs < wonCounts.length ? wonCounts[pegs] : 0;
+    }
+
+    /**
+     * key - Packs the board into a position, one bit per hole.
+     */
+    private int key(boolean[][] board) {
+        int p = 0;
+
+        for (int h = 0; h < geometry.size; h++) {
+            p |= board[geometry.rowOf[h]][geometry.colOf[h]] ? 1 << h : 0;
+        }
+
+        return p;
+    }
+
+    private static boolean get(AtomicLongArray bitmap, int p) {
+        return (bitmap.get(p >>> 6) & (1L << p)) != 0;
+    }
+
+    /**
+     * set - Sets the bit of the position.
+     *
+     * @return True if the bit was not set before.
+     */
+    private static boolean set(AtomicLongArray bitmap, int p) {
+        long bit = 1L << p;
+        long word = bitmap.getAndAccumulate(p >>> 6, bit, (a, b) -> a | b);
+
+        return (word & bit) == 0;
+    }
+
+    private static int chunks(int length) {
+        return Math.max(1, Math.min(length, Runtime.getRuntime().availableProcessors() * CHUNKS_PER_THREAD));
+    }
+
+    // First index of chunk c, out of the given number of chunks
+    private static int start(int length, int chunks, int c) {
+        return (int) ((long) length * c / chunks);
+    }
+}
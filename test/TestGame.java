@@ -3,7 +3,7 @@ import org.junit.*;
 import java.util.ArrayList;
 import java.util.Arrays;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 public class TestGame {
 
@@ -48,4 +48,50 @@ public class TestGame {
         assertEquals(allMoves1.size(), outcome1Moves);
         assertEquals(allMoves2.size(), outcome2Moves);
     }
+
+    @Test
+    public void testMoveQueries() {
+
+        // The boards of testGame, with 2, 1 and 0 possible moves
+        final int boardMoves = 2;
+        boolean[][] board = {
+                {false},
+                {true, false},
+                {true, false, false},
+                {false, true, false, false}
+        };
+
+        final int outcome1Moves = 1;
+        boolean[][] outcome1 = {
+                {false},
+                {false, false},
+                {false, false, false},
+                {true, true, false, false}
+        };
+
+        final int outcome2Moves = 0;
+        boolean[][] outcome2 = {
+                {true},
+                {false, false},
+                {false, false, false},
+                {false, true, false, false}
+        };
+
+        // The move queries must agree with the list of all moves
+        assertEquals(Game.countMoves(board), boardMoves);
+        assertEquals(Game.countMoves(outcome1), outcome1Moves);
+        assertEquals(Game.countMoves(outcome2), outcome2Moves);
+        assertTrue(Game.hasAnyMove(board));
+        assertTrue(Game.hasAnyMove(outcome1));
+        assertFalse(Game.hasAnyMove(outcome2));
+
+        ArrayList<Move> allMoves = Game.getAllMoves(board);
+        int index = 0;
+
+        for (Move m : Game.moves(board)) {
+            assertEquals(allMoves.get(index++).toString(), m.toString());
+        }
+
+        assertEquals(index, boardMoves);
+    }
 }
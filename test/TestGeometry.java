@@ -0,0 +1,84 @@
+import org.junit.*;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+public class TestGeometry {
+
+    @Test
+    public void testJumpTables() {
+
+        // Every line of three holes holds two jumps, one in each direction
+        Geometry triangle = Geometry.triangle(5);
+        Geometry cross = Geometry.englishCross();
+        Geometry hexagon = Geometry.hexagon(3);
+
+        assertEquals(15, triangle.size);
+        assertEquals(36, triangle.jumpTo.length);
+        assertEquals(33, cross.size);
+        assertEquals(76, cross.jumpTo.length);
+        assertEquals(19, hexagon.size);
+        assertEquals(54, hexagon.jumpTo.length);
+
+        // (x + y) % 3 on triangular lattices, (x + y) % 3 and (x - y) % 3 on the square lattice
+        assertEquals(1, triangle.colorings.length);
+        assertEquals(2, cross.colorings.length);
+        assertEquals(1, hexagon.colorings.length);
+    }
+
+    @Test
+    public void testTriangleMatchesBoardShape() {
+        Geometry triangle = Geometry.triangle(5);
+        Geometry shape = Geometry.of(TestSolverRegression.STANDARD_BOARD);
+
+        assertArrayEquals(triangle.jumpFrom, shape.jumpFrom);
+        assertArrayEquals(triangle.jumpOver, shape.jumpOver);
+        assertArrayEquals(triangle.jumpTo, shape.jumpTo);
+
+        // Parity classes of a triangle are the positions with the same parity of x and y
+        for (int h = 0; h < triangle.size; h++) {
+            int c = triangle.parityClass[h];
+            assertEquals(triangle.rowOf[h] % 2, triangle.rowOf[c] % 2);
+            assertEquals(triangle.colOf[h] % 2, triangle.colOf[c] % 2);
+        }
+    }
+
+    @Test
+    public void testCrossSolve() {
+        Geometry cross = Geometry.englishCross();
+
+        // Four pegs, which can end in the center hole
+        boolean[][] board = new boolean[7][7];
+        board[1][2] = true;
+        board[1][3] = true;
+        board[2][4] = true;
+        board[3][5] = true;
+
+        ArrayList<Move> moves = Game.findSolution(cross, board, 3, 3);
+        assertNotNull(moves);
+
+        for (Move m : moves) {
+            boolean legal = false;
+
+            for (Move valid : Game.getAllMoves(cross, board)) {
+                legal |= valid.axis == m.axis && valid.direction == m.direction && valid.x == m.x && valid.y == m.y;
+            }
+
+            assertTrue("Illegal move: " + m, legal);
+            Game.takeMove(board, m);
+        }
+
+        assertEquals(1, Game.numPegs(board));
+        assertTrue(board[3][3]);
+    }
+
+    @Test
+    public void testCrossInfeasibleTarget() {
+        Geometry cross = Geometry.englishCross();
+
+        // Starting from the center, the last peg can not end next to it
+        assertNull(Game.findSolution(cross, cross.fullBoard(3, 3), 3, 2));
+        assertEquals(0, Game.iterationCount);
+    }
+}
@@ -0,0 +1,27 @@
+import org.junit.*;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+public class TestHeuristicSolver {
+
+    @Test
+    public void testSolvesStandardBoard() {
+        ArrayList<Move> moves = new HeuristicSolver(16, 4, 60_000, 42).solve(TestSolverRegression.STANDARD_BOARD);
+
+        // A solved line has one move per peg but the last one
+        assertEquals(Game.numPegs(TestSolverRegression.STANDARD_BOARD) - 1, moves.size());
+        TestSolverRegression.assertSolutionReplays(TestSolverRegression.STANDARD_BOARD, moves);
+    }
+
+    @Test
+    public void testEqualSeedsYieldEqualLines() {
+
+        // The budget is far larger than the solve takes, so the time limit is never reached
+        ArrayList<Move> first = new HeuristicSolver(16, 4, 60_000, 7).solve(TestSolverRegression.STANDARD_BOARD);
+        ArrayList<Move> second = new HeuristicSolver(16, 4, 60_000, 7).solve(TestSolverRegression.STANDARD_BOARD);
+
+        assertEquals(first.toString(), second.toString());
+    }
+}
@@ -0,0 +1,73 @@
+import org.junit.*;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+public class TestRetrogradeAnalysis {
+
+    @After
+    public void tearDown() {
+        Game.useAnalysis(null);
+    }
+
+    @Test
+    public void testClassificationMatchesSearch() {
+
+        // Every single-hole start must be classified as the exhaustive search finds it
+        for (int rows = 4; rows <= 5; rows++) {
+            Geometry g = Geometry.triangle(rows);
+            RetrogradeAnalysis analysis = new RetrogradeAnalysis(g);
+
+            for (int h = 0; h < g.size; h++) {
+                boolean[][] board = g.fullBoard(g.rowOf[h], g.colOf[h]);
+
+                assertTrue(analysis.isClassified(board));
+                assertEquals("Start " + h + " of " + rows + " rows",
+                        Game.findSolution(g, board, -1, -1) != null, analysis.isWon(board));
+            }
+        }
+    }
+
+    @Test
+    public void testLevelCounts() {
+        RetrogradeAnalysis analysis = RetrogradeAnalysis.triangle(5);
+
+        // The single-hole starts, and the 15 holes the last peg can end in
+        assertEquals(15, analysis.numReachable(14));
+        assertEquals(15, analysis.numWon(14));
+        assertEquals(15, analysis.numWon(1));
+
+        long reachable = 0;
+
+        for (int pegs = 1; pegs < 15; pegs++) {
+            reachable += analysis.numReachable(pegs);
+            assertTrue(analysis.numWon(pegs) <= analysis.numReachable(pegs));
+        }
+
+        assertEquals(13935, reachable);
+    }
+
+    @Test
+    public void testSolveIsLookup() {
+        RetrogradeAnalysis analysis = RetrogradeAnalysis.triangle(6);
+        Game.useAnalysis(analysis);
+
+        ArrayList<Move> moves = Game.findSolution(TestSolverRegression.LARGE_BOARD);
+
+        // No node is searched, and the solution replays legally
+        assertEquals(0, Game.iterationCount);
+        assertNotNull(moves);
+        TestSolverRegression.assertSolutionReplays(TestSolverRegression.LARGE_BOARD, moves);
+
+        // Boards which are not reachable from a single-hole start are still searched
+        boolean[][] board = Game.copyBoard(TestSolverRegression.LARGE_BOARD);
+        board[0][0] = true;
+        board[5][0] = false;
+        board[5][5] = false;
+
+        assertFalse(analysis.isClassified(board));
+        Game.findSolution(board);
+        assertTrue(Game.iterationCount > 0);
+    }
+}
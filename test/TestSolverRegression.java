@@ -0,0 +1,277 @@
+import org.junit.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+/**
+ * TestSolverRegression - Solves the boards of <code>Game.main</code> and checks the work done by the solver.
+ * Node counts are deterministic, so their bounds are tight; allocation bounds leave room for JIT differences.
+ */
+public class TestSolverRegression {
+
+    // Boards, as found in Game.main
+    static final boolean[][] STANDARD_BOARD = {
+            {false},
+            {true, true},
+            {true, true, true},
+            {true, true, true, true},
+            {true, true, true, true, true}
+    };
+
+    static final boolean[][] LARGE_BOARD = {
+            {false},
+            {true, true},
+            {true, true, true},
+            {true, true, true, true},
+            {true, true, true, true, true},
+            {true, true, true, true, true, true}
+    };
+
+    static final boolean[][] MEGA_BOARD = {
+            {true},
+            {true, true},
+            {false, true, true},
+            {true, true, true, true},
+            {true, true, true, true, true},
+            {true, true, true, true, true, true},
+            {true, true, true, true, true, true, true}
+    };
+
+    @Test
+    public void testStandardBoard() {
+        checkSolve(STANDARD_BOARD, 328, 128L << 10);
+    }
+
+    @Test
+    public void testLargeBoard() {
+        checkSolve(LARGE_BOARD, 437, 128L << 10);
+    }
+
+    @Test
+    public void testMegaBoard() {
+        checkSolve(MEGA_BOARD, 1715, 512L << 10);
+    }
+
+    @Test
+    public void testSolveHelperTakesSolution() {
+        boolean[][] board = Game.copyBoard(STANDARD_BOARD);
+        ArrayList<Move> movesTaken = new ArrayList<>();
+
+        // The solution is appended to the moves taken, and taken on the board
+        assertSame(movesTaken, Game.solveHelper(board, movesTaken, 0));
+        assertArrayEquals(assertSolutionReplays(STANDARD_BOARD, movesTaken), board);
+    }
+
+    @Test
+    public void testTargetOriginalHole() {
+
+        // Fewer nodes than without a target, as the endgame table holds every board of these sizes
+        checkTargetSolve(STANDARD_BOARD, 0, 0, 24);
+        checkTargetSolve(LARGE_BOARD, 0, 0, 38);
+    }
+
+    @Test
+    public void testInfeasibleTarget() {
+
+        // (1, 0), (3, 0) and (3, 2) share the parity class of (1, 0) and hold pegs,
+        // but a jump changes the number of pegs in every (x + y) % 3 class by one,
+        // so the parity of these counts rules out ending in (1, 0)
+        assertNull(Game.findSolution(STANDARD_BOARD, 1, 0));
+        assertEquals(0, Game.iterationCount);
+
+        // The coloring allows the last peg to end in (0, 0), but no peg
+        // shares its parity class, so only the parity class rule rejects it
+        boolean[][] board = {
+                {false},
+                {true, true},
+                {false, false, false},
+                {false, false, false, false},
+                {false, false, false, false, false}
+        };
+
+        assertNull(Game.findSolution(board, 0, 0));
+        assertEquals(0, Game.iterationCount);
+    }
+
+    @Test
+    public void testTargetPrunedDuringSearch() {
+
+        // (1, 1) is the only peg in the parity class of (3, 1). Jumping (2, 2) over it
+        // empties the class, so the board reached is pruned although it still has a
+        // move, and jumping (1, 1) to (3, 3) leaves no move: the search stops one jump in
+        boolean[][] board = {
+                {false},
+                {true, true},
+                {false, false, true},
+                {true, false, false, false},
+                {false, false, false, false, false}
+        };
+
+        int capacity = Game.endgameCapacity;
+
+        try {
+            // Without an endgame table, which would reject the board right away
+            Game.endgameCapacity = 0;
+
+            assertNotNull(Game.findSolution(board));
+            assertNull(Game.findSolution(board, 3, 1));
+            assertEquals(1 + Game.countMoves(board), Game.iterationCount);
+        } finally {
+            Game.endgameCapacity = capacity;
+        }
+    }
+
+    @Test
+    public void testEndgameTable() {
+
+        // (2, 1) passes both invariants, but no board reversed from it is the standard board
+        Geometry g = Geometry.triangle(5);
+
+        assertTrue(Game.isTargetFeasible(g, g.toPegs(STANDARD_BOARD), g.hole(2, 1)));
+        assertNull(Game.findSolution(STANDARD_BOARD, 2, 1));
+        assertEquals(1, Game.iterationCount);
+        assertEquals(15, Game.numEndgamePegs());
+
+        int capacity = Game.endgameCapacity;
+
+        try {
+            // A table too small for the boards of the search, which is then only cut short near the end
+            Game.endgameCapacity = 64;
+
+            ArrayList<Move> moves = Game.findSolution(MEGA_BOARD, 5, 2);
+
+            assertTrue(assertSolutionReplays(MEGA_BOARD, moves)[5][2]);
+            assertEquals(3, Game.numEndgamePegs());
+        } finally {
+            Game.endgameCapacity = capacity;
+        }
+    }
+
+    @Test
+    public void testDeadBoardTableIsBounded() {
+        int capacity = Game.deadBoardsCapacity;
+
+        try {
+            // A table far smaller than the number of dead boards met while solving
+            Game.deadBoardsCapacity = 64;
+
+            ArrayList<Move> moves = Game.findSolution(MEGA_BOARD);
+
+            assertNotNull(moves);
+            assertSolutionReplays(MEGA_BOARD, moves);
+            assertTrue("Dead boards held: " + Game.numDeadBoards(), Game.numDeadBoards() <= 64);
+        } finally {
+            Game.deadBoardsCapacity = capacity;
+        }
+
+        // The default table is bounded too, and a solve does not grow it
+        Game.findSolution(MEGA_BOARD);
+        long allocatedBefore = allocatedBytes();
+        Game.findSolution(MEGA_BOARD);
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        assertTrue(Game.numDeadBoards() <= Game.deadBoardsCapacity);
+        assertTrue("Allocated bytes: " + allocated, allocated < 8L * Game.deadBoardsCapacity);
+
+        // Smaller boards get one slot per possible board, and boards of more than 63 holes none
+        Game.findSolution(STANDARD_BOARD);
+        assertEquals(1 << 15, Game.numDeadBoardSlots());
+
+        boolean[][] board = new boolean[11][];
+
+        for (int y = 0; y < board.length; y++) {
+            board[y] = new boolean[y + 1];
+        }
+
+        board[1][0] = true;
+        board[2][0] = true;
+
+        assertNotNull(Game.findSolution(board));
+        assertEquals(0, Game.numDeadBoardSlots());
+    }
+
+    @Test
+    public void testMoveQueriesDoNotAllocate() {
+        int moves = 0;
+
+        // Only the overloads taking a compiled geometry are free of allocations
+        Geometry g = Geometry.triangle(MEGA_BOARD.length);
+        long allocatedBefore = allocatedBytes();
+
+        for (int i = 0; i < 1000; i++) {
+            moves += Game.countMoves(g, MEGA_BOARD) + (Game.hasAnyMove(g, MEGA_BOARD) ? 1 : 0);
+        }
+
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        assertEquals(1000 * 5, moves);
+        assertTrue("Move queries allocated " + allocated + " bytes", allocated < 1000);
+    }
+
+    /**
+     * checkTargetSolve - Solves the board with the last peg in the target hole,
+     * and checks the node count of the solve and the final position of the solution.
+     */
+    private static void checkTargetSolve(boolean[][] board, int targetY, int targetX, int maxNodes) {
+        ArrayList<Move> moves = Game.findSolution(board, targetY, targetX);
+
+        assertNotNull("No solution found", moves);
+        assertTrue("Node count regressed: " + Game.iterationCount, Game.iterationCount <= maxNodes);
+        assertTrue(assertSolutionReplays(board, moves)[targetY][targetX]);
+    }
+
+    /**
+     * checkSolve - Solves the board, then checks the node count and allocated bytes
+     * of the solve against the given bounds, and that the solution replays legally.
+     */
+    private static void checkSolve(boolean[][] board, int maxNodes, long maxAllocatedBytes) {
+
+        // Warm up, so the measured solve is not dominated by class loading and interpretation
+        Game.findSolution(board);
+
+        long allocatedBefore = allocatedBytes();
+        ArrayList<Move> moves = Game.findSolution(board);
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        assertNotNull("No solution found", moves);
+        assertTrue("Node count regressed: " + Game.iterationCount, Game.iterationCount <= maxNodes);
+        assertTrue("Allocated bytes regressed: " + allocated, allocated <= maxAllocatedBytes);
+
+        assertSolutionReplays(board, moves);
+    }
+
+    /**
+     * assertSolutionReplays - Checks that every move is legal at the point where it is taken,
+     * and that exactly one peg is left at the end.
+     *
+     * @return The board after replaying the solution.
+     */
+    static boolean[][] assertSolutionReplays(boolean[][] board, ArrayList<Move> moves) {
+        boolean[][] replay = Game.copyBoard(board);
+
+        for (Move m : moves) {
+            boolean legal = false;
+
+            for (Move valid : Game.getAllMoves(replay)) {
+                legal |= valid.axis == m.axis && valid.direction == m.direction && valid.x == m.x && valid.y == m.y;
+            }
+
+            assertTrue("Illegal move: " + m, legal);
+            Game.takeMove(replay, m);
+        }
+
+        assertEquals(1, Game.numPegs(replay));
+
+        return replay;
+    }
+
+    /**
+     * allocatedBytes - The number of bytes allocated so far by the current thread.
+     */
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}